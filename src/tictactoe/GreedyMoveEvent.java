@@ -0,0 +1,17 @@
+package tictactoe;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("tictactoe.GreedyMove")
+@Label("Greedy Move")
+@Category({"Tic Tac Toe", "Inference"})
+@Description("A lookup of the greedy move at a board.")
+class GreedyMoveEvent extends jdk.jfr.Event {
+	
+	/** The number of possible moves compared at the board. */
+	@Label("Candidate Moves")
+	int candidateMoves;
+}
@@ -0,0 +1,127 @@
+package tictactoe;
+
+import java.util.Arrays;
+
+class IndexedMaxHeap {
+
+	/** The keys in the heap, in binary heap order by priority. */
+	private int[] heap = new int[16];
+
+	/** Stores the priority of each key, where the index is the key's position in {@code heap}. */
+	private double[] priorities = new double[16];
+
+	/** The number of keys in the heap. */
+	private int size = 0;
+
+	/** Maps each key in the heap to its position in {@code heap}. */
+	private final IntIndex positions = new IntIndex();
+
+	/**
+	 * Constructs an empty max heap of integer keys, where each key
+	 * can be found in the heap at most once. Memory grows with the
+	 * number of keys in the heap, not with the range of the keys.
+	 */
+	IndexedMaxHeap() {
+	}
+
+	/**
+	 * @return Whether the heap has no keys.
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Adds the given key with the given priority. If the key is already
+	 * in the heap, keeps the larger of its old and new priorities.
+	 *
+	 * @param key The key to add.
+	 * @param priority The priority of the key.
+	 */
+	void offer(int key, double priority) {
+		final int position = positions.get(key);
+		if (position < 0) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, 2*size);
+				priorities = Arrays.copyOf(priorities, 2*size);
+			}
+			heap[size] = key;
+			priorities[size] = priority;
+			siftUp(size++);
+		} else if (priorities[position] < priority) {
+			priorities[position] = priority;
+			siftUp(position);
+		}
+	}
+
+	/**
+	 * Removes the key with the highest priority.
+	 *
+	 * @return The key with the highest priority. The heap must not be empty.
+	 */
+	int poll() {
+		final int key = heap[0];
+		positions.remove(key);
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			priorities[0] = priorities[size];
+			siftDown(0);
+		}
+		return key;
+	}
+
+	/**
+	 * Moves the key at the given position up until its parent has a higher priority.
+	 *
+	 * @param position The position of the key to move.
+	 */
+	private void siftUp(int position) {
+		final int key = heap[position];
+		final double priority = priorities[position];
+		while (position > 0) {
+			final int parent = (position-1) / 2;
+			if (priorities[parent] >= priority)
+				break;
+			moveTo(parent, position);
+			position = parent;
+		}
+		heap[position] = key;
+		priorities[position] = priority;
+		positions.put(key, position);
+	}
+
+	/**
+	 * Moves the key at the given position down until its children have lower priorities.
+	 *
+	 * @param position The position of the key to move.
+	 */
+	private void siftDown(int position) {
+		final int key = heap[position];
+		final double priority = priorities[position];
+		while (2*position + 1 < size) {
+			int child = 2*position + 1;
+			if (child+1 < size && priorities[child] < priorities[child+1])
+				child++;
+			if (priority >= priorities[child])
+				break;
+			moveTo(child, position);
+			position = child;
+		}
+		heap[position] = key;
+		priorities[position] = priority;
+		positions.put(key, position);
+	}
+
+	/**
+	 * Moves the key at one position of the heap to another position.
+	 *
+	 * @param from The position of the key to move.
+	 * @param to The position to which the key will be moved.
+	 */
+	private void moveTo(int from, int to) {
+		heap[to] = heap[from];
+		priorities[to] = priorities[from];
+		positions.put(heap[to], to);
+	}
+}
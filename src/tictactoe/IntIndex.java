@@ -0,0 +1,131 @@
+package tictactoe;
+
+import java.util.Arrays;
+
+class IntIndex {
+
+	/** The keys stored in each slot, using linear probing. */
+	private int[] keys = new int[16];
+
+	/** Stores the value of the key in each slot, where -1 means the slot is empty. */
+	private int[] values = new int[16];
+
+	/**
+	 * The number of bits to shift a multiplied key right by to get its ideal
+	 * slot, which is 32 minus the base-2 logarithm of the number of slots.
+	 */
+	private int shift = 28;
+
+	/** The number of keys in the index. */
+	private int size = 0;
+
+	/**
+	 * Constructs an empty map from integer keys to non-negative integer
+	 * values, which doubles its number of slots whenever it is half full.
+	 */
+	IntIndex() {
+		Arrays.fill(values, -1);
+	}
+
+	/**
+	 * Computes the slot at which the given key would ideally be stored,
+	 * using Fibonacci hashing over all 32 bits of the key.
+	 *
+	 * @param key The key whose slot will be computed.
+	 * @return The ideal slot of the key.
+	 */
+	private int idealSlot(int key) {
+		return (key * 0x9E3779B9) >>> shift;
+	}
+
+	/**
+	 * Finds the slot holding the given key, or the empty slot
+	 * at which it would be stored.
+	 *
+	 * @param key The key to find.
+	 * @return The slot holding or able to hold the key.
+	 */
+	private int slotOf(int key) {
+		int slot = idealSlot(key);
+		while (values[slot] >= 0 && keys[slot] != key)
+			slot = (slot+1) & (keys.length-1);
+		return slot;
+	}
+
+	/**
+	 * Gets the value of the given key.
+	 *
+	 * @param key The key whose value will be returned.
+	 * @return The value of the key, or -1 if the key is not in the index.
+	 */
+	int get(int key) {
+		return values[slotOf(key)];
+	}
+
+	/**
+	 * Sets the value of the given key, adding the key if it is not in the index.
+	 *
+	 * @param key The key whose value will be set.
+	 * @param value The value to set. Must be a non-negative integer.
+	 */
+	void put(int key, int value) {
+		int slot = slotOf(key);
+		if (values[slot] < 0) {
+			if (2*(size+1) > keys.length) {
+				resize();
+				slot = slotOf(key);
+			}
+			keys[slot] = key;
+			size++;
+		}
+		values[slot] = value;
+	}
+
+	/**
+	 * Removes the given key, shifting back any following keys
+	 * that would otherwise no longer be found by probing.
+	 *
+	 * @param key The key to remove. Must be in the index.
+	 */
+	void remove(int key) {
+		final int mask = keys.length-1;
+		int gap = slotOf(key);
+		for (int next = (gap+1) & mask; values[next] >= 0; next = (next+1) & mask) {
+			// Moves the key into the gap if the gap lies between its ideal slot and its slot
+			if (((next - idealSlot(keys[next])) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				gap = next;
+			}
+		}
+		values[gap] = -1;
+		size--;
+	}
+
+	/**
+	 * Doubles the number of slots, moving each key to its new slot.
+	 */
+	private void resize() {
+		final int[] oldKeys = keys;
+		final int[] oldValues = values;
+		keys = new int[2*oldKeys.length];
+		values = new int[2*oldValues.length];
+		Arrays.fill(values, -1);
+		shift--;
+
+		for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+			if (oldValues[oldSlot] < 0)
+				continue;
+			final int slot = slotOf(oldKeys[oldSlot]);
+			keys[slot] = oldKeys[oldSlot];
+			values[slot] = oldValues[oldSlot];
+		}
+	}
+
+	/**
+	 * @return The number of slots in the index, which doubles each time the index resizes.
+	 */
+	int slots() {
+		return keys.length;
+	}
+}
@@ -0,0 +1,33 @@
+package tictactoe;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("tictactoe.QTableGrowth")
+@Label("Q Table Growth")
+@Category({"Tic Tac Toe", "Training"})
+@Description("A Q table resizing to make room for more entries.")
+class QTableGrowthEvent extends jdk.jfr.Event {
+	
+	/** The player whose Q table grew. */
+	@Label("Player")
+	String player;
+	
+	/** The number of slots in the Q table before it resized. */
+	@Label("Old Slots")
+	int oldSlots;
+	
+	/** The number of slots in the Q table after it resized. */
+	@Label("New Slots")
+	int newSlots;
+	
+	/** The number of entries in the Q table. */
+	@Label("Entries")
+	int entries;
+	
+	/** The number of entries evicted from the Q table so far. */
+	@Label("Evictions")
+	long evictions;
+}
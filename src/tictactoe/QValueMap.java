@@ -0,0 +1,197 @@
+package tictactoe;
+
+import java.util.Arrays;
+
+class QValueMap {
+
+	/** The largest visit count kept for a key. */
+	private static final byte MAX_VISITS = 4;
+
+	/** Maps each key to the index of its entry in the entry arrays. */
+	private final IntIndex index = new IntIndex();
+
+	/** The key of each entry. */
+	private int[] keys = new int[16];
+
+	/** The value of each entry. */
+	private double[] values = new double[16];
+
+	/**
+	 * Stores the visit count of each entry, where 1 means the entry has
+	 * not been visited since the eviction hand last passed it.
+	 */
+	private byte[] visits = new byte[16];
+
+	/** The largest number of keys the map will hold before evicting keys. */
+	private final int capacity;
+
+	/** The number of keys in the map, which are stored in the first entries. */
+	private int size = 0;
+
+	/** The entry at which the eviction hand will next look. */
+	private int hand = 0;
+
+	/** The number of lookups that found their key. */
+	private long hits = 0;
+
+	/** The number of lookups that did not find their key. */
+	private long misses = 0;
+
+	/** The number of keys evicted to make room for new keys. */
+	private long evictions = 0;
+
+	/**
+	 * Constructs an empty map from integer keys to Q-values. Once the map holds
+	 * the given number of keys, each new key evicts a key using the CLOCK scheme,
+	 * where keys are evicted unless they have been visited since the eviction
+	 * hand last passed them, so that rarely visited keys are evicted first.
+	 *
+	 * @param capacity The largest number of keys the map will hold.
+	 *                 Must be a positive integer.
+	 * @throws IllegalArgumentException If the capacity is not positive.
+	 */
+	QValueMap(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("The capacity must be a positive integer.");
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Gets the value of the given key, counting the lookup as a visit.
+	 *
+	 * @param key The key whose value will be returned.
+	 * @param defaultValue The value to return if the key is not in the map.
+	 * @return The value of the key, or the default value if absent.
+	 */
+	double getOrDefault(int key, double defaultValue) {
+		final int entry = index.get(key);
+		if (entry < 0) {
+			misses++;
+			return defaultValue;
+		}
+
+		hits++;
+		if (visits[entry] < MAX_VISITS)
+			visits[entry]++;
+		return values[entry];
+	}
+
+	/**
+	 * Sets the value of the given key, evicting a key
+	 * if the key is new and the map is full.
+	 *
+	 * @param key The key whose value will be set.
+	 * @param value The value to set.
+	 */
+	void put(int key, double value) {
+		int entry = index.get(key);
+
+		// Makes room for a new key
+		if (entry < 0) {
+			if (size == capacity) {
+				evict();
+			} else if (size == keys.length) {
+				keys = Arrays.copyOf(keys, 2*size);
+				values = Arrays.copyOf(values, 2*size);
+				visits = Arrays.copyOf(visits, 2*size);
+			}
+			entry = size++;
+			keys[entry] = key;
+			visits[entry] = 1;
+			index.put(key, entry);
+		}
+
+		values[entry] = value;
+	}
+
+	/**
+	 * Advances the eviction hand, lowering the visit count of each key it
+	 * passes, until it reaches a key that has not been visited, then removes it.
+	 */
+	private void evict() {
+		while (true) {
+			final int entry = hand;
+			hand = (hand+1) % size;
+			if (visits[entry] > 1) {
+				visits[entry]--;
+			} else {
+				remove(entry);
+				evictions++;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Removes the key of the given entry, moving the last entry into its place.
+	 *
+	 * @param entry The entry whose key will be removed.
+	 */
+	private void remove(int entry) {
+		index.remove(keys[entry]);
+		size--;
+		if (entry != size) {
+			keys[entry] = keys[size];
+			values[entry] = values[size];
+			visits[entry] = visits[size];
+			index.put(keys[entry], entry);
+		}
+		if (hand >= size)
+			hand = 0;
+	}
+
+	/**
+	 * Gets the key of the given entry, without counting a visit.
+	 *
+	 * @param entry The entry whose key will be returned. Must be less than {@code size()}.
+	 * @return The key of the entry.
+	 */
+	int keyAt(int entry) {
+		return keys[entry];
+	}
+
+	/**
+	 * Gets the value of the given entry, without counting a visit.
+	 *
+	 * @param entry The entry whose value will be returned. Must be less than {@code size()}.
+	 * @return The value of the entry.
+	 */
+	double valueAt(int entry) {
+		return values[entry];
+	}
+
+	/**
+	 * @return The number of slots in the map's key index, which doubles each time the map resizes.
+	 */
+	int slots() {
+		return index.slots();
+	}
+
+	/**
+	 * @return The number of keys in the map.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return The number of lookups that found their key.
+	 */
+	long hits() {
+		return hits;
+	}
+
+	/**
+	 * @return The number of lookups that did not find their key.
+	 */
+	long misses() {
+		return misses;
+	}
+
+	/**
+	 * @return The number of keys evicted to make room for new keys.
+	 */
+	long evictions() {
+		return evictions;
+	}
+}
@@ -0,0 +1,509 @@
+package tictactoe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static tictactoe.TicTacToeBoard.SIZE;
+
+public class TTTNTupleNetwork {
+
+	/** The number of cells in each straight-line tuple. */
+	private static final int LINE_LENGTH = Math.min(SIZE, 4);
+
+	/** The number of values a single cell can take (X, O or NONE). */
+	private static final int CELL_VALUES = Player.values().length;
+
+	/** The players who have their own networks, in update order. */
+	private static final Player[] PLAYERS = {Player.X, Player.O};
+
+	/**
+	 * The cells of each full row, column and diagonal of the board,
+	 * where the cell at index {@code x+SIZE*y} corresponds to the position {@code (x, y)}.
+	 */
+	private static final int[][] LINES = new int[2*SIZE + 2][SIZE];
+
+	static {
+		for (int i = 0; i < SIZE; i++) {
+			for (int j = 0; j < SIZE; j++) {
+				LINES[i][j] = j + SIZE*i;
+				LINES[SIZE + i][j] = i + SIZE*j;
+			}
+			LINES[2*SIZE][i] = i + SIZE*i;
+			LINES[2*SIZE + 1][i] = (SIZE-1 - i) + SIZE*i;
+		}
+	}
+
+	/**
+	 * The cells covered by each tuple, where the cell at index
+	 * {@code x+SIZE*y} corresponds to the position {@code (x, y)}.
+	 * Contains every symmetric image of every base tuple.
+	 */
+	private final int[][] tupleCells;
+
+	/**
+	 * The offset into the weight arrays of the lookup table used by each
+	 * tuple. Symmetric images of the same base tuple share one lookup table.
+	 */
+	private final int[] tupleOffsets;
+
+	/**
+	 * Stores the lookup table weights for the X player, where each
+	 * tuple's lookup table starts at its offset in {@code tupleOffsets}.
+	 */
+	private final float[] xWeights;
+
+	/**
+	 * Stores the lookup table weights for the O player, where each
+	 * tuple's lookup table starts at its offset in {@code tupleOffsets}.
+	 */
+	private final float[] oWeights;
+
+	/**
+	 * Stores the weight index hit by each tuple during an update,
+	 * so that updates can find repeated hits without allocating.
+	 */
+	private final int[] tupleHits;
+
+	/**
+	 * The board the network is working on, where the player at index
+	 * {@code x+SIZE*y} corresponds to the player at position {@code (x, y)}.
+	 * Moves are played on it in place, so training allocates nothing.
+	 */
+	private final Player[] cells = new Player[SIZE*SIZE];
+
+	/** The player whose turn it is on the board the network is working on. */
+	private Player turn = Player.X;
+
+	/** The learning rate for the network. */
+	private final double learningRate;
+
+	/** The discount rate for the network. */
+	private final double discountRate;
+
+	/**
+	 * The rate at which update steps will choose
+	 * the greedy action rather than a random action.
+	 * */
+	private final double greedyRate;
+
+	/**
+	 * Constructs a TicTacToe n-tuple network collection, where there
+	 * is a network for the X player (who goes first) and the O player.
+	 * Each network approximates the Q-value of a board-move pair by the
+	 * value of the board reached by the move, summed over many small
+	 * lookup tables indexed by fixed patterns of cells.
+	 *
+	 * @param learningRate The learning rate for this network.
+	 * @param discountRate The discount rate for this network.
+	 * @param greedyRate The rate at which update steps will choose the greedy action
+	 *                   rather than a random action.
+	 */
+	public TTTNTupleNetwork(double learningRate, double discountRate, double greedyRate) {
+		this.learningRate = learningRate;
+		this.discountRate = discountRate;
+		this.greedyRate = greedyRate;
+
+		// Expands each base tuple into its symmetric images
+		final ArrayList<int[]> cells = new ArrayList<int[]>();
+		final ArrayList<Integer> offsets = new ArrayList<Integer>();
+		int weightCount = 0;
+		for (int[] baseTuple : baseTuples()) {
+
+			// Skips base tuples covering the same cells as an image of an earlier base tuple
+			final int[] sortedBase = baseTuple.clone();
+			Arrays.sort(sortedBase);
+			boolean isCovered = false;
+			for (int[] image : cells) {
+				final int[] sortedImage = image.clone();
+				Arrays.sort(sortedImage);
+				isCovered = isCovered || Arrays.equals(sortedBase, sortedImage);
+			}
+			if (isCovered)
+				continue;
+
+			final ArrayList<int[]> images = new ArrayList<int[]>();
+			for (int symmetry = 0; symmetry < 8; symmetry++) {
+				final int[] image = new int[baseTuple.length];
+				for (int i = 0; i < baseTuple.length; i++)
+					image[i] = transform(baseTuple[i], symmetry);
+
+				// Skips images that are identical to one already found
+				boolean isDuplicate = false;
+				for (int[] other : images)
+					isDuplicate = isDuplicate || Arrays.equals(image, other);
+				if (!isDuplicate)
+					images.add(image);
+			}
+
+			for (int[] image : images) {
+				cells.add(image);
+				offsets.add(weightCount);
+			}
+			weightCount += pow(CELL_VALUES, baseTuple.length);
+		}
+
+		this.tupleCells = cells.toArray(new int[][] {});
+		this.tupleOffsets = new int[offsets.size()];
+		for (int i = 0; i < tupleOffsets.length; i++)
+			tupleOffsets[i] = offsets.get(i);
+		this.xWeights = new float[weightCount];
+		this.oWeights = new float[weightCount];
+		this.tupleHits = new int[tupleCells.length];
+	}
+
+	/**
+	 * Computes the base tuples of the network: every horizontal line
+	 * segment, every main-diagonal line segment and every 2x2 square.
+	 * Vertical and anti-diagonal lines are covered by their symmetric images.
+	 *
+	 * @return The cells covered by each base tuple.
+	 */
+	private static ArrayList<int[]> baseTuples() {
+		final ArrayList<int[]> tuples = new ArrayList<int[]>();
+
+		// Adds the horizontal line segments
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x + LINE_LENGTH <= SIZE; x++) {
+				final int[] tuple = new int[LINE_LENGTH];
+				for (int i = 0; i < LINE_LENGTH; i++)
+					tuple[i] = (x+i) + SIZE*y;
+				tuples.add(tuple);
+			}
+		}
+
+		// Adds the main-diagonal line segments
+		for (int y = 0; y + LINE_LENGTH <= SIZE; y++) {
+			for (int x = 0; x + LINE_LENGTH <= SIZE; x++) {
+				final int[] tuple = new int[LINE_LENGTH];
+				for (int i = 0; i < LINE_LENGTH; i++)
+					tuple[i] = (x+i) + SIZE*(y+i);
+				tuples.add(tuple);
+			}
+		}
+
+		// Adds the 2x2 squares
+		for (int y = 0; y + 1 < SIZE; y++)
+			for (int x = 0; x + 1 < SIZE; x++)
+				tuples.add(new int[] {x + SIZE*y, (x+1) + SIZE*y, x + SIZE*(y+1), (x+1) + SIZE*(y+1)});
+
+		return tuples;
+	}
+
+	/**
+	 * Maps a cell through one of the 8 symmetries of the square board.
+	 *
+	 * @param cell The cell to map, at index {@code x+SIZE*y}.
+	 * @param symmetry The symmetry to apply. Must be between 0 and 7, where
+	 *                 bit 0 mirrors x, bit 1 mirrors y and bit 2 swaps x and y.
+	 * @return The cell reached by applying the symmetry.
+	 */
+	private static int transform(int cell, int symmetry) {
+		int x = cell % SIZE;
+		int y = cell / SIZE;
+		if ((symmetry & 1) != 0)
+			x = SIZE-1 - x;
+		if ((symmetry & 2) != 0)
+			y = SIZE-1 - y;
+		if ((symmetry & 4) != 0) {
+			final int temp = x;
+			x = y;
+			y = temp;
+		}
+		return x + SIZE*y;
+	}
+
+	/**
+	 * @return {@code base} raised to the power {@code exponent}.
+	 */
+	private static int pow(int base, int exponent) {
+		int result = 1;
+		for (int i = 0; i < exponent; i++)
+			result *= base;
+		return result;
+	}
+
+	/**
+	 * Copies the given board into the board the network is working on.
+	 *
+	 * @param board The board to copy.
+	 */
+	private void load(TicTacToeBoard board) {
+		for (int cell = 0; cell < cells.length; cell++)
+			cells[cell] = board.get(cell % SIZE, cell / SIZE);
+		turn = board.turnOf();
+	}
+
+	/**
+	 * Computes the index into the weight arrays used by the given tuple
+	 * for the board the network is working on.
+	 *
+	 * @param tuple The tuple whose weight index will be computed.
+	 * @return The index of the tuple's weight for the board.
+	 */
+	private int weightIndex(int tuple) {
+		final int[] tupleCellIndices = tupleCells[tuple];
+		int index = 0;
+		for (int i = 0; i < tupleCellIndices.length; i++)
+			index = index*CELL_VALUES + cells[tupleCellIndices[i]].ordinal();
+		return tupleOffsets[tuple] + index;
+	}
+
+	/**
+	 * Computes the value of the board the network is working on.
+	 *
+	 * @param weights The weights of the network to evaluate.
+	 * @return The sum of the tuples' weights for the board.
+	 */
+	private double value(float[] weights) {
+		double value = 0;
+		for (int tuple = 0; tuple < tupleCells.length; tuple++)
+			value += weights[weightIndex(tuple)];
+		return value;
+	}
+
+	/**
+	 * Gets the weights of the given player's network.
+	 *
+	 * @param player The player whose weights will be returned. Must be X or O.
+	 * @return The weights of the player's network.
+	 */
+	private float[] weightsOf(Player player) {
+		return player == Player.X ? xWeights : oWeights;
+	}
+
+	/**
+	 * Gets the Q-value associated with the given board and move for
+	 * the given player.
+	 *
+	 * @param board The board for which to check the Q-value.
+	 * @param move The move for which to check the Q-value.
+	 *             Is 0 if null, as no moves follow a terminal board.
+	 * @param player The player for whom to check the Q-value.
+	 * @return The Q-value associated with the given board and move
+	 *         for the given player.
+	 */
+	public double qValue(TicTacToeBoard board, TicTacToeMove move, Player player) {
+		load(board);
+		return qValue(move == null ? -1 : move.hashCode(), player);
+	}
+
+	/**
+	 * Gets the Q-value associated with marking the given cell of the board
+	 * the network is working on for the given player.
+	 *
+	 * @param movedCell The cell marked by the move, at index {@code x+SIZE*y}.
+	 *                  Is 0 if -1, as no moves follow a terminal board.
+	 * @param player The player for whom to check the Q-value.
+	 * @return The Q-value associated with the marked cell for the given player.
+	 */
+	private double qValue(int movedCell, Player player) {
+		if (movedCell < 0)
+			return 0.0;
+
+		// Evaluates the board reached by the move, then takes the move back
+		cells[movedCell] = turn;
+		final double qValue = value(weightsOf(player));
+		cells[movedCell] = Player.NONE;
+		return qValue;
+	}
+
+	/**
+	 * Gets the greedy move at the given board for the player whose turn it is.
+	 * The greedy move is the move with the highest Q-value out of the
+	 * possible moves with the given board for the player.
+	 *
+	 * @param board The board for which to get the greedy move.
+	 * @return The greedy move with the board for the player whose turn it is,
+	 *         or null if the board is terminal.
+	 */
+	public TicTacToeMove greedyMove(TicTacToeBoard board) {
+		load(board);
+		final int greedyCell = greedyCell();
+		return greedyCell < 0 ? null : new TicTacToeMove(greedyCell % SIZE, greedyCell / SIZE);
+	}
+
+	/**
+	 * Gets the cell marked by the greedy move at the board the network is working on.
+	 *
+	 * @return The cell marked by the greedy move, at index {@code x+SIZE*y},
+	 *         or -1 if the board is terminal.
+	 */
+	private int greedyCell() {
+		if (reward(Player.X) != Reward.NONE)
+			return -1;
+
+		// Stores the greedy move details
+		int bestCell = -1;
+		double bestQValue = Double.NEGATIVE_INFINITY;
+
+		// Computes the greedy move, in the same order as possibleMoves()
+		for (int x = 0; x < SIZE; x++) {
+			for (int y = 0; y < SIZE; y++) {
+				if (cells[x + SIZE*y] != Player.NONE)
+					continue;
+				final double moveQValue = qValue(x + SIZE*y, turn);
+				if (bestQValue < moveQValue) {
+					bestCell = x + SIZE*y;
+					bestQValue = moveQValue;
+				}
+			}
+		}
+
+		return bestCell;
+	}
+
+	/**
+	 * Gets a random empty cell of the board the network is working on.
+	 *
+	 * @return A random empty cell, at index {@code x+SIZE*y}.
+	 *         The board must not be terminal.
+	 */
+	private int randomCell() {
+
+		// Counts the empty cells
+		int emptyCells = 0;
+		for (int cell = 0; cell < cells.length; cell++)
+			emptyCells += cells[cell] == Player.NONE ? 1 : 0;
+
+		// Finds the chosen empty cell
+		int remaining = (int)(emptyCells*Math.random());
+		for (int cell = 0; cell < cells.length; cell++)
+			if (cells[cell] == Player.NONE && remaining-- == 0)
+				return cell;
+		return -1;
+	}
+
+	/**
+	 * Computes the reward given to the given player by the board the network is working on.
+	 *
+	 * @param player The player for whom to compute the reward.
+	 * @return The reward for the player, which is {@code Reward.NONE}
+	 *         if and only if the board is not terminal.
+	 */
+	private Reward reward(Player player) {
+		if (inWinState(player))
+			return Reward.WIN;
+
+		else if (inWinState(player.opponent()))
+			return Reward.LOSS;
+
+		// Checks for a tie
+		for (int cell = 0; cell < cells.length; cell++)
+			if (cells[cell] == Player.NONE)
+				return Reward.NONE;
+		return Reward.TIE;
+	}
+
+	/**
+	 * Checks whether the board the network is working on is in a win state for the given player.
+	 *
+	 * @param player The player for which to check the win state.
+	 * @return Whether the board is in a win state for the given player.
+	 */
+	private boolean inWinState(Player player) {
+		for (int[] line : LINES) {
+			boolean isWin = true;
+			for (int cell : line)
+				isWin = isWin && cells[cell] == player;
+			if (isWin)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Moves the given player's value for the board the network is working on by the
+	 * given amount, spreading the change evenly over the tuples' weights. Weights
+	 * hit by several tuples are counted once per pair of such tuples, since each of
+	 * their changes is seen by each of those tuples.
+	 *
+	 * @param player The player whose value will be adjusted. Must be X or O.
+	 * @param delta The amount by which to change the value.
+	 */
+	private void adjustValue(Player player, double delta) {
+		final float[] weights = weightsOf(player);
+
+		// Finds the weights hit by the tuples
+		for (int tuple = 0; tuple < tupleCells.length; tuple++)
+			tupleHits[tuple] = weightIndex(tuple);
+
+		// Counts the pairs of tuples hitting the same weight
+		int hitPairs = 0;
+		for (int tuple = 0; tuple < tupleHits.length; tuple++)
+			for (int other = 0; other < tupleHits.length; other++)
+				hitPairs += tupleHits[tuple] == tupleHits[other] ? 1 : 0;
+
+		final float tupleDelta = (float)(delta / hitPairs);
+		for (int tuple = 0; tuple < tupleHits.length; tuple++)
+			weights[tupleHits[tuple]] += tupleDelta;
+	}
+
+	/**
+	 * Plays one move on the board the network is working on, updating
+	 * the networks using a TD(0) step. The Q-value of a move is the value
+	 * of the board it reaches, so the board after the move is updated.
+	 *
+	 * @return Whether the move ended the game.
+	 */
+	private boolean step() {
+
+		// Selects the action to take
+		final int movedCell;
+		if (Math.random() <= greedyRate)
+			movedCell = greedyCell();
+		else
+			movedCell = randomCell();
+
+		// Plays the move and computes the next greedy move
+		cells[movedCell] = turn;
+		turn = turn.opponent();
+		final int greedyCell = greedyCell();
+
+		// Computes & applies the TD error for the players
+		Reward reward = Reward.NONE;
+		for (Player player : PLAYERS) {
+			reward = reward(player);
+			double tdError = -value(weightsOf(player));
+			tdError += reward.amount;
+			tdError += discountRate * qValue(greedyCell, player);
+			adjustValue(player, learningRate * tdError);
+		}
+
+		return reward != Reward.NONE;
+	}
+
+	/**
+	 * Updates the networks at the given board using a TD(0) step.
+	 *
+	 * @param board The board at which to make an update to the networks.
+	 * @return The board reached by the ultimately chosen move,
+	 *         or the starting board {@code TicTacToeBoard.DEFAULT}
+	 *         if a terminal board was reached.
+	 */
+	public TicTacToeBoard update(TicTacToeBoard board) {
+		load(board);
+		return step() ? TicTacToeBoard.DEFAULT : new TicTacToeBoard(cells);
+	}
+
+	/**
+	 * Runs enough update steps to train the networks until the game
+	 * terminates. The game is played on the board the network is
+	 * working on, so no objects are created.
+	 */
+	public void trainGame() {
+		Arrays.fill(cells, Player.NONE);
+		turn = Player.X;
+		boolean isOver;
+		do {
+			isOver = step();
+		} while (!isOver);
+	}
+
+	/**
+	 * @return The number of weights held by each player's network,
+	 *         which is fixed no matter how many boards are visited.
+	 */
+	public int weightCount() {
+		return xWeights.length;
+	}
+}
@@ -1,24 +1,107 @@
 package tictactoe;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 import static tictactoe.TicTacToeBoard.SIZE;
 
+/**
+ * Q tables for Tic Tac Toe, keyed by the int hash value of each board-move pair.
+ * These hash values are only distinct, and can only be turned back into boards,
+ * for boards up to 3x3: from 4x4, {@code TicTacToeBoard.hashCode()} (base
+ * {@code SIZE}) no longer fits in an int, so this class needs {@code SIZE <= 3}.
+ */
 public class TTTQTable {
 	
+	/** The number of distinct board hash values. */
+	private static final long BOARD_COUNT = (long)Math.pow(SIZE, SIZE*SIZE);
+	
+	/** The largest number of Q-values for which dense tables will be built. */
+	private static final long DENSE_LIMIT = 1 << 22;
+	
+	/**
+	 * The move hash values in the order {@code TicTacToeBoard.possibleMoves()}
+	 * lists them, so that ties are broken the same way as {@code greedyMove()}.
+	 */
+	static final int[] MOVE_ORDER = new int[SIZE*SIZE];
+	
+	static {
+		for (int x = 0; x < SIZE; x++)
+			for (int y = 0; y < SIZE; y++)
+				MOVE_ORDER[y + SIZE*x] = x + SIZE*y;
+	}
+	
+	/**
+	 * Whether the Vector API module was added when the JVM started, in which
+	 * case the batch greedy moves are computed by {@code VectorGreedyMoves}.
+	 * That class is never loaded otherwise, as it needs the module to link.
+	 */
+	private static final boolean VECTOR_API_PRESENT = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+	
+	/**
+	 * Holds the empty dense tables & turn of every board for the dense tables.
+	 * These are only computed the first time the class is used, which the
+	 * JVM guarantees happens once and is seen by every thread.
+	 */
+	private static class BoardDetails {
+		
+		/**
+		 * Stores the starting value of each board-move pair in the dense tables,
+		 * laid out the same way as the dense tables. Possible moves start at 0,
+		 * and the rest at negative infinity so that no kernel picks them.
+		 */
+		static final double[][] EMPTY_DENSE_TABLES = new double[SIZE*SIZE][(int)BOARD_COUNT];
+		
+		/**
+		 * Stores whether it is the X player's turn at each board,
+		 * where the index is the board's hash value.
+		 */
+		static final boolean[] X_TURNS = new boolean[(int)BOARD_COUNT];
+		
+		static {
+			for (double[] emptyDenseTable : EMPTY_DENSE_TABLES)
+				Arrays.fill(emptyDenseTable, Double.NEGATIVE_INFINITY);
+			for (int boardHash = 0; boardHash < BOARD_COUNT; boardHash++) {
+				final TicTacToeBoard board = TicTacToeBoard.fromHash(boardHash);
+				for (TicTacToeMove move : board.possibleMoves())
+					EMPTY_DENSE_TABLES[move.hashCode()][boardHash] = 0.0;
+				X_TURNS[boardHash] = board.turnOf() == Player.X;
+			}
+		}
+	}
+	
 	/** 
 	 * Stores the Q-values for each board-move pair for the
 	 * X player, where the key is the hash value of the
 	 * board-move pair, and the value is the Q-value for it.
 	 */
-	private final HashMap<Integer, Double> xTable = new HashMap<Integer, Double>();
+	private final QValueMap xTable;
 	
 	/** 
 	 * Stores the Q-values for each board-move pair for the
 	 * O player, where the key is the hash value of the
 	 * board-move pair, and the value is the Q-value for it.
 	 */
-	private final HashMap<Integer, Double> oTable = new HashMap<Integer, Double>();
+	private final QValueMap oTable;
+	
+	/**
+	 * Stores a copy of the Q-values of the player whose turn it is at each board
+	 * for batch evaluation, with one table per move, so the same move at many boards
+	 * can be read together. The Q-value of the move with hash value {@code move} at the
+	 * board with hash value {@code board} is at {@code denseTables[move][board]}, and
+	 * moves that are not possible have a Q-value of negative infinity. Is null until
+	 * first needed, and is only used while {@code denseTablesStale} is false.
+	 */
+	private double[][] denseTables;
+	
+	/** Whether the Q tables have changed since the dense tables were filled. */
+	private boolean denseTablesStale = true;
+	
+	/**
+	 * Stores the board-move pairs awaiting a prioritized sweeping update,
+	 * where each key is the hash value of the board-move pair, and its
+	 * priority is the size of its TD error.
+	 */
+	private final IndexedMaxHeap sweepQueue = new IndexedMaxHeap();
 	
 	/** The learning rate for the Q tables. */
 	private final double learningRate;
@@ -32,6 +115,21 @@ public class TTTQTable {
 	 * */
 	private final double greedyRate;
 	
+	/** The number of games trained so far, used to sample episode events. */
+	private long episodes = 0;
+	
+	/** The number of update steps taken in the current game. */
+	private int episodeSteps = 0;
+	
+	/** The number of greedy update steps taken in the current game. */
+	private int episodeGreedySteps = 0;
+	
+	/** The reward given to the X player by the latest update step. */
+	private int lastXReward = 0;
+	
+	/** The number of board-move pairs whose Q-values have been updated so far. */
+	private long updates = 0;
+	
 	/**
 	 * Constructs a TicTacToe Q table collection, where there
 	 * is a Q table for the X player (who goes first) and the
@@ -43,9 +141,71 @@ public class TTTQTable {
 	 *                   rather than a random action.
 	 */
 	public TTTQTable(double learningRate, double discountRate, double greedyRate) {
+		this(learningRate, discountRate, greedyRate, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Constructs a TicTacToe Q table collection, where there
+	 * is a Q table for the X player (who goes first) and the
+	 * O player, and each Q table holds at most the given number
+	 * of Q-values. Once a Q table is full, rarely visited Q-values
+	 * are evicted to make room, and evicted Q-values are treated
+	 * as never having been set.
+	 * 
+	 * @param learningRate The learning rate for this Q table.
+	 * @param discountRate The discount rate for this Q table.
+	 * @param greedyRate The rate at which update steps will choose the greedy action
+	 *                   rather than a random action.
+	 * @param capacity The largest number of Q-values each player's Q table will hold.
+	 *                 Must be a positive integer.
+	 * @throws IllegalArgumentException If the capacity is not positive.
+	 */
+	public TTTQTable(double learningRate, double discountRate, double greedyRate, int capacity) {
 		this.learningRate = learningRate;
 		this.discountRate = discountRate;
 		this.greedyRate = greedyRate;
+		this.xTable = new QValueMap(capacity);
+		this.oTable = new QValueMap(capacity);
+	}
+	
+	/**
+	 * Gets the number of Q-values stored in the given player's Q table.
+	 * 
+	 * @param player The player whose Q table to check.
+	 * @return The number of Q-values stored for the given player.
+	 */
+	public int size(Player player) {
+		return player == Player.X ? xTable.size() : oTable.size();
+	}
+	
+	/**
+	 * @return The number of board-move pairs whose Q-values have been
+	 *         updated so far, by both training modes.
+	 */
+	public long updates() {
+		return updates;
+	}
+	
+	/**
+	 * @return The number of Q-value lookups that found a stored Q-value.
+	 */
+	public long hits() {
+		return xTable.hits() + oTable.hits();
+	}
+	
+	/**
+	 * @return The number of Q-value lookups that did not find a stored
+	 *         Q-value, including those for evicted Q-values.
+	 */
+	public long misses() {
+		return xTable.misses() + oTable.misses();
+	}
+	
+	/**
+	 * @return The number of Q-values evicted to make room for new Q-values.
+	 */
+	public long evictions() {
+		return xTable.evictions() + oTable.evictions();
 	}
 	
 	/**
@@ -74,7 +234,7 @@ public class TTTQTable {
 	public double qValue(TicTacToeBoard board, TicTacToeMove move, Player player) {
 		
 		// Gets the correct table
-		final HashMap<Integer, Double> table;
+		final QValueMap table;
 		if (player == Player.X)
 			table = xTable;
 		else
@@ -96,13 +256,28 @@ public class TTTQTable {
 	private void setQValue(TicTacToeBoard board, TicTacToeMove move, Player player, double qValue) {
 		
 		// Gets the correct table
-		final HashMap<Integer, Double> table;
+		final QValueMap table;
 		if (player == Player.X)
 			table = xTable;
 		else
 			table = oTable;
 		
+		final int oldSlots = table.slots();
 		table.put(hash(board, move), qValue);
+		denseTablesStale = true;
+		
+		// Records the table resizing
+		if (table.slots() != oldSlots) {
+			final QTableGrowthEvent event = new QTableGrowthEvent();
+			if (event.shouldCommit()) {
+				event.player = player.name();
+				event.oldSlots = oldSlots;
+				event.newSlots = table.slots();
+				event.entries = table.size();
+				event.evictions = table.evictions();
+				event.commit();
+			}
+		}
 	}
 	
 	/**
@@ -114,13 +289,16 @@ public class TTTQTable {
 	 * @return The greedy move with the board for the player whose turn it is.
 	 */
 	public TicTacToeMove greedyMove(TicTacToeBoard board) {
+		final GreedyMoveEvent event = new GreedyMoveEvent();
+		event.begin();
 		
 		// Stores the greedy move details
 		TicTacToeMove bestMove = null;
 		double bestQValue = Double.NEGATIVE_INFINITY;
 		
 		// Computes the greedy move 
-		for (TicTacToeMove move : board.possibleMoves()) {
+		final TicTacToeMove[] moves = board.possibleMoves();
+		for (TicTacToeMove move : moves) {
 			final double moveQValue = qValue(board, move, board.turnOf());
 			if (bestQValue < moveQValue) {
 				bestMove = move;
@@ -128,9 +306,154 @@ public class TTTQTable {
 			}
 		}
 		
+		event.end();
+		if (event.shouldCommit()) {
+			event.candidateMoves = moves.length;
+			event.commit();
+		}
+		
 		return bestMove;
 	}
 	
+	/**
+	 * Gets the greedy move and its Q-value for each of the given boards,
+	 * for the player whose turn it is at each board. Gives the same moves
+	 * as calling {@code greedyMove()} on each board, without creating any
+	 * boards or moves when the Q tables are small enough to be copied into
+	 * dense arrays. The boards are evaluated several at a time with the
+	 * Vector API if the JVM was started with
+	 * {@code --add-modules jdk.incubator.vector}, and one at a time otherwise.
+	 * <p>
+	 * This is not thread-safe: it refreshes this Q table's copies of the
+	 * Q tables, so it must not be called while another thread calls any
+	 * method of this Q table.
+	 * 
+	 * @param boardHashes The hash values of the boards for which to get the greedy moves,
+	 *                    as computed by {@code TicTacToeBoard.hashCode()}.
+	 * @param bestMoves The array in which to store the hash value of each board's greedy move,
+	 *                  as computed by {@code TicTacToeMove.hashCode()}, or -1 if the board
+	 *                  has no possible moves. Must be at least as long as {@code boardHashes}.
+	 * @param bestQValues The array in which to store the Q-value of each board's greedy move,
+	 *                    or negative infinity if the board has no possible moves.
+	 *                    Must be at least as long as {@code boardHashes}.
+	 */
+	public void greedyMoves(int[] boardHashes, int[] bestMoves, double[] bestQValues) {
+		greedyMoves(boardHashes, bestMoves, bestQValues, VECTOR_API_PRESENT);
+	}
+	
+	/**
+	 * Gets the greedy move and its Q-value for each of the given boards,
+	 * using the given kernel when the Q tables fit into dense arrays.
+	 * 
+	 * @param boardHashes The hash values of the boards for which to get the greedy moves.
+	 * @param bestMoves The array in which to store the hash value of each board's greedy move.
+	 * @param bestQValues The array in which to store the Q-value of each board's greedy move.
+	 * @param vectorized Whether to use the Vector API kernel rather than the scalar kernel.
+	 *                   Must only be true if the Vector API module is present.
+	 */
+	void greedyMoves(int[] boardHashes, int[] bestMoves, double[] bestQValues, boolean vectorized) {
+		
+		// Falls back to the Q tables when the dense tables would be too large
+		if (BOARD_COUNT * SIZE*SIZE > DENSE_LIMIT) {
+			for (int i = 0; i < boardHashes.length; i++) {
+				final TicTacToeBoard board = TicTacToeBoard.fromHash(boardHashes[i]);
+				final TicTacToeMove move = greedyMove(board);
+				bestMoves[i] = move == null ? -1 : move.hashCode();
+				bestQValues[i] = move == null ? Double.NEGATIVE_INFINITY : qValue(board, move, board.turnOf());
+			}
+			return;
+		}
+		
+		fillDenseTables();
+		
+		// Evaluates the boards with the selected kernel
+		if (vectorized)
+			VectorGreedyMoves.greedyMoves(denseTables, boardHashes, bestMoves, bestQValues);
+		else
+			scalarGreedyMoves(boardHashes, bestMoves, bestQValues);
+	}
+	
+	/**
+	 * Gets the greedy move and its Q-value for each of the given boards
+	 * from the dense tables without the Vector API. Each move is checked at
+	 * every board before the next move, so each dense table is read in turn.
+	 * 
+	 * @param boardHashes The hash values of the boards for which to get the greedy moves.
+	 * @param bestMoves The array in which to store the hash value of each board's greedy move.
+	 * @param bestQValues The array in which to store the Q-value of each board's greedy move.
+	 */
+	private void scalarGreedyMoves(int[] boardHashes, int[] bestMoves, double[] bestQValues) {
+		Arrays.fill(bestMoves, 0, boardHashes.length, -1);
+		Arrays.fill(bestQValues, 0, boardHashes.length, Double.NEGATIVE_INFINITY);
+		
+		// Computes the greedy moves, where moves that are not possible are never better
+		for (int move : MOVE_ORDER) {
+			final double[] denseTable = denseTables[move];
+			for (int i = 0; i < boardHashes.length; i++) {
+				final double moveQValue = denseTable[boardHashes[i]];
+				if (bestQValues[i] < moveQValue) {
+					bestMoves[i] = move;
+					bestQValues[i] = moveQValue;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Copies the Q tables into the dense tables if they have changed
+	 * since last copied.
+	 */
+	private void fillDenseTables() {
+		if (!denseTablesStale)
+			return;
+		
+		if (denseTables == null)
+			denseTables = new double[SIZE*SIZE][(int)BOARD_COUNT];
+		
+		// Copies the Q-values over, where missing Q-values are 0
+		for (int move = 0; move < SIZE*SIZE; move++)
+			System.arraycopy(BoardDetails.EMPTY_DENSE_TABLES[move], 0, denseTables[move], 0, (int)BOARD_COUNT);
+		copyIntoDenseTables(xTable, true);
+		copyIntoDenseTables(oTable, false);
+		
+		denseTablesStale = false;
+	}
+	
+	/**
+	 * Copies the Q-values of the given Q table at the boards where it is
+	 * the given player's turn into the dense tables.
+	 * 
+	 * @param table The Q table to copy.
+	 * @param xTurns Whether to copy the boards where it is X's turn, rather than O's.
+	 */
+	private void copyIntoDenseTables(QValueMap table, boolean xTurns) {
+		for (int entry = 0; entry < table.size(); entry++) {
+			final int boardHash = table.keyAt(entry) / (SIZE*SIZE);
+			final int move = table.keyAt(entry) % (SIZE*SIZE);
+			if (BoardDetails.X_TURNS[boardHash] == xTurns)
+				denseTables[move][boardHash] = table.valueAt(entry);
+		}
+	}
+	
+	/**
+	 * Selects the move to take at the given board, choosing the greedy
+	 * move at the greedy rate and a random possible move otherwise.
+	 * 
+	 * @param board The board at which to select a move. Must not be terminal.
+	 * @return The selected move.
+	 */
+	private TicTacToeMove selectMove(TicTacToeBoard board) {
+		if (Math.random() <= greedyRate) {
+			episodeGreedySteps++;
+			return greedyMove(board);
+		}
+		
+		// Chooses a random valid move
+		final TicTacToeMove[] moves = board.possibleMoves();
+		final int randomIndex = (int)(moves.length*Math.random());
+		return moves[randomIndex];
+	}
+	
 	/**
 	 * Updates the Q tables at the given board.
 	 * 
@@ -142,15 +465,7 @@ public class TTTQTable {
 	public TicTacToeBoard update(TicTacToeBoard board) {
 		
 		// Selects the action to take
-		final TicTacToeMove move;
-		if (Math.random() <= greedyRate) {
-			move = greedyMove(board);
-		} else {
-			// Chooses a random valid move
-			final TicTacToeMove[] moves = board.possibleMoves();
-			final int randomIndex = (int)(moves.length*Math.random());
-			move = moves[randomIndex];
-		}
+		final TicTacToeMove move = selectMove(board);
 		
 		// Computes the next board and its greedy move
 		final TicTacToeBoard nextBoard = move.nextBoard(board);
@@ -160,13 +475,19 @@ public class TTTQTable {
 		for (Player player : new Player[] {Player.X, Player.O}) {
 			final double startingQValue = qValue(board, move, player);
 			double qValue = -startingQValue;
-			qValue += move.reward(board, player).amount;
+			final Reward reward = move.reward(board, player);
+			if (player == Player.X)
+				lastXReward = reward.amount;
+			qValue += reward.amount;
 			qValue += discountRate * qValue(nextBoard, greedyMove, player);
 			qValue *= learningRate;
 			qValue += startingQValue;
 			setQValue(board, move, player, qValue);
 		}
 		
+		episodeSteps++;
+		updates++;
+		
 		return nextBoard.isTerminal() ? TicTacToeBoard.DEFAULT : nextBoard;
 	}
 	
@@ -175,9 +496,192 @@ public class TTTQTable {
 	 * the game terminates.
 	 */
 	public void trainGame() {
+		final TrainingEpisodeEvent event = beginEpisode();
+		
 		TicTacToeBoard board = TicTacToeBoard.DEFAULT;
 		do {
 			board = update(board);
 		} while (board != TicTacToeBoard.DEFAULT);
+		
+		endEpisode(event);
+	}
+	
+	/**
+	 * Starts tracking a training game.
+	 * 
+	 * @return The event recording the game, which has begun timing.
+	 */
+	private TrainingEpisodeEvent beginEpisode() {
+		final TrainingEpisodeEvent event = new TrainingEpisodeEvent();
+		event.begin();
+		episodeSteps = 0;
+		episodeGreedySteps = 0;
+		return event;
+	}
+	
+	/**
+	 * Finishes tracking a training game, recording a sample of the games.
+	 * 
+	 * @param event The event recording the game.
+	 */
+	private void endEpisode(TrainingEpisodeEvent event) {
+		event.end();
+		if (episodes++ % TrainingEpisodeEvent.SAMPLE_INTERVAL == 0 && event.shouldCommit()) {
+			event.steps = episodeSteps;
+			event.terminalReward = lastXReward;
+			event.greedyFraction = (double)episodeGreedySteps / episodeSteps;
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Trains the Q tables for the given number of games as one batch.
+	 * 
+	 * @param games The number of games to train.
+	 */
+	public void trainGames(int games) {
+		final TrainingBatchEvent event = new TrainingBatchEvent();
+		event.begin();
+		
+		for (int game = 0; game < games; game++)
+			trainGame();
+		
+		event.end();
+		if (event.shouldCommit()) {
+			event.episodes = games;
+			event.xEntries = size(Player.X);
+			event.oEntries = size(Player.O);
+			event.evictions = evictions();
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Runs a game using prioritized sweeping. Each move played is updated
+	 * directly, and after each move, the queued board-move pairs with
+	 * the largest TD errors are updated first. Whenever a board's Q-values change,
+	 * the board-move pairs leading to it are queued as well, so updates are spent
+	 * on the parts of the Q tables that are still changing.
+	 * Queued board-move pairs are recovered from their hash values.
+	 * 
+	 * @param planningSteps The largest number of queued updates to run after each move.
+	 * @param threshold The size of TD error above which board-move pairs will be queued.
+	 */
+	public void trainGamePrioritized(int planningSteps, double threshold) {
+		final TrainingEpisodeEvent event = beginEpisode();
+		
+		TicTacToeBoard board = TicTacToeBoard.DEFAULT;
+		do {
+			// Updates the Q tables at the move played
+			final TicTacToeMove move = selectMove(board);
+			backup(board, move, learningRate, threshold);
+			
+			// Runs the queued updates with the largest TD errors
+			for (int step = 0; step < planningSteps && !sweepQueue.isEmpty(); step++)
+				sweep(threshold);
+			
+			final TicTacToeBoard nextBoard = move.nextBoard(board);
+			if (nextBoard.isTerminal())
+				lastXReward = move.reward(board, Player.X).amount;
+			episodeSteps++;
+			board = nextBoard.isTerminal() ? TicTacToeBoard.DEFAULT : nextBoard;
+		} while (board != TicTacToeBoard.DEFAULT);
+		
+		endEpisode(event);
+	}
+	
+	/**
+	 * Computes the TD error of the given board-move pair for the given player.
+	 * 
+	 * @param board The board for which to compute the TD error.
+	 * @param move The move for which to compute the TD error.
+	 * @param player The player for whom to compute the TD error.
+	 * @param nextBoard The board reached by the move.
+	 * @param greedyMove The greedy move at the board reached by the move.
+	 * @return The difference between the target Q-value and the current Q-value.
+	 */
+	private double tdError(TicTacToeBoard board, TicTacToeMove move, Player player,
+			TicTacToeBoard nextBoard, TicTacToeMove greedyMove) {
+		double tdError = -qValue(board, move, player);
+		tdError += move.reward(board, player).amount;
+		tdError += discountRate * qValue(nextBoard, greedyMove, player);
+		return tdError;
+	}
+	
+	/**
+	 * Queues the given board-move pair for a prioritized sweeping update if
+	 * its largest TD error out of the players is above the given threshold.
+	 * 
+	 * @param board The board of the board-move pair to queue.
+	 * @param move The move of the board-move pair to queue.
+	 * @param threshold The size of TD error above which the pair will be queued.
+	 */
+	private void queue(TicTacToeBoard board, TicTacToeMove move, double threshold) {
+		final TicTacToeBoard nextBoard = move.nextBoard(board);
+		final TicTacToeMove greedyMove = greedyMove(nextBoard);
+		
+		// Computes the largest TD error for the players
+		double priority = 0;
+		for (Player player : new Player[] {Player.X, Player.O})
+			priority = Math.max(priority, Math.abs(tdError(board, move, player, nextBoard, greedyMove)));
+		
+		if (priority > threshold)
+			sweepQueue.offer(hash(board, move), priority);
+	}
+	
+	/**
+	 * Updates the Q tables at the queued board-move pair with the largest TD error.
+	 * As the game's rules give the exact result of every move, the update sets the
+	 * Q-values straight to their targets rather than moving by the learning rate.
+	 * 
+	 * @param threshold The size of TD error above which pairs will be queued.
+	 */
+	private void sweep(double threshold) {
+		final int pairHash = sweepQueue.poll();
+		final TicTacToeBoard board = TicTacToeBoard.fromHash(pairHash / (SIZE*SIZE));
+		final TicTacToeMove move = new TicTacToeMove(pairHash % SIZE, pairHash % (SIZE*SIZE) / SIZE);
+		backup(board, move, 1.0, threshold);
+	}
+	
+	/**
+	 * Updates the Q tables at the given board-move pair, then queues the pair
+	 * again along with every board-move pair leading to its board, as their
+	 * TD errors may have changed.
+	 * 
+	 * @param board The board at which to update the Q tables.
+	 * @param move The move at which to update the Q tables.
+	 * @param stepSize The fraction of the TD error by which to move the Q-values.
+	 * @param threshold The size of TD error above which pairs will be queued.
+	 */
+	private void backup(TicTacToeBoard board, TicTacToeMove move, double stepSize, double threshold) {
+		
+		// Computes the next board and its greedy move
+		final TicTacToeBoard nextBoard = move.nextBoard(board);
+		final TicTacToeMove greedyMove = greedyMove(nextBoard);
+		
+		// Computes & stores the new Q-value for the players
+		for (Player player : new Player[] {Player.X, Player.O}) {
+			final double tdError = tdError(board, move, player, nextBoard, greedyMove);
+			setQValue(board, move, player, qValue(board, move, player) + stepSize * tdError);
+		}
+		updates++;
+		queue(board, move, threshold);
+		
+		// Queues the board-move pairs leading to the board, found by
+		// removing each of the marks of the player who played last
+		final Player lastPlayer = board.turnOf().opponent();
+		final int boardHash = board.hashCode();
+		int sizePower = 1;
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				if (board.get(x, y) == lastPlayer) {
+					final int ordinalChange = Player.NONE.ordinal() - lastPlayer.ordinal();
+					final TicTacToeBoard previousBoard = TicTacToeBoard.fromHash(boardHash + sizePower*ordinalChange);
+					if (!previousBoard.isTerminal())
+						queue(previousBoard, new TicTacToeMove(x, y), threshold);
+				}
+				sizePower *= SIZE;
+			}
+		}
 	}
 }
@@ -1,12 +1,18 @@
 package tictactoe;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.HashSet;
 
+import com.sun.management.ThreadMXBean;
+
 public class Tests {
 
 	public static void main(String[] args) {
 		ticTacToeBoardTests();
+		nTupleNetworkTests();
+		qTableTests();
 	}
 	
 	private static void ticTacToeBoardTests() { try {
@@ -153,5 +159,315 @@ public class Tests {
 			System.out.print("P");
 		}
 		
+		// Tests that fromHash() is the inverse of hashCode()
+		{
+			final TicTacToeBoard board = new TicTacToeBoard(
+					Player.X,    Player.O,    Player.NONE,
+					Player.NONE, Player.X,    Player.O,
+					Player.NONE, Player.NONE, Player.NONE
+			);
+			if (!TicTacToeBoard.fromHash(board.hashCode()).equals(board))
+				throw new RuntimeException("Expected the boards to be equal.");
+			System.out.print("P");
+		}
+		
 	} catch (Exception e) {e.printStackTrace();}}
+	
+	private static void nTupleNetworkTests() { try {
+		System.out.println();
+		System.out.println("Tests for TTTNTupleNetwork:");
+		
+		// Tests that symmetric moves share their Q-values after training
+		{
+			final TTTNTupleNetwork network = new TTTNTupleNetwork(0.5, 0.9, 0.5);
+			for (int episode = 0; episode < 1_000; episode++)
+				network.trainGame();
+			final double corner1 = network.qValue(TicTacToeBoard.DEFAULT, new TicTacToeMove(0, 0), Player.X);
+			final double corner2 = network.qValue(TicTacToeBoard.DEFAULT, new TicTacToeMove(2, 2), Player.X);
+			if (Math.abs(corner1 - corner2) > 1e-3)
+				throw new RuntimeException("Expected symmetric moves to have equal Q-values.");
+			System.out.print("P");
+		}
+		
+		// Tests that symmetric base tuples share one lookup table:
+		// edge lines, middle lines and diagonals of 27 weights, and squares of 81
+		{
+			final TTTNTupleNetwork network = new TTTNTupleNetwork(0.5, 0.9, 0.5);
+			if (network.weightCount() != 3*27 + 81)
+				throw new RuntimeException("Expected one lookup table per symmetric pattern.");
+			System.out.print("P");
+		}
+		
+		// Tests that training does not grow the network
+		{
+			final TTTNTupleNetwork network = new TTTNTupleNetwork(0.5, 0.9, 0.5);
+			final int weightCount = network.weightCount();
+			for (int episode = 0; episode < 1_000; episode++)
+				network.trainGame();
+			if (network.weightCount() != weightCount)
+				throw new RuntimeException("Expected the number of weights to stay fixed.");
+			System.out.print("P");
+		}
+		
+		// Tests that a trained network completes a winning line
+		{
+			final TTTNTupleNetwork network = new TTTNTupleNetwork(0.1, 0.9, 0.5);
+			for (int episode = 0; episode < 50_000; episode++)
+				network.trainGame();
+			final TicTacToeBoard board = new TicTacToeBoard(
+					Player.X,    Player.X,    Player.NONE,
+					Player.O,    Player.O,    Player.NONE,
+					Player.NONE, Player.NONE, Player.NONE
+			);
+			if (!network.greedyMove(board).equals(new TicTacToeMove(2, 0)))
+				throw new RuntimeException("Expected the greedy move to win the game.");
+			System.out.print("P");
+		}
+
+		// Tests that training games allocate nothing once warmed up
+		{
+			final TTTNTupleNetwork network = new TTTNTupleNetwork(0.1, 0.9, 0.5);
+			for (int episode = 0; episode < 20_000; episode++)
+				network.trainGame();
+			final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+			final long thread = Thread.currentThread().getId();
+			final long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+			for (int episode = 0; episode < 10_000; episode++)
+				network.trainGame();
+			final long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+			if (allocated > 0)
+				throw new RuntimeException("Expected no allocations, but " + allocated + " bytes were allocated.");
+			System.out.print("P");
+		}
+
+	} catch (Exception e) {e.printStackTrace();}}
+	
+	private static void qTableTests() { try {
+		System.out.println();
+		System.out.println("Tests for TTTQTable:");
+		
+		// Tests that greedyMoves() agrees with greedyMove() for every board
+		{
+			final TTTQTable table = new TTTQTable(0.5, 0.9, 0.5);
+			for (int episode = 0; episode < 10_000; episode++)
+				table.trainGame();
+			final int[] boardHashes = new int[19683];
+			for (int i = 0; i < boardHashes.length; i++)
+				boardHashes[i] = i;
+			final int[] bestMoves = new int[boardHashes.length];
+			final double[] bestQValues = new double[boardHashes.length];
+			table.greedyMoves(boardHashes, bestMoves, bestQValues);
+			for (int i = 0; i < boardHashes.length; i++) {
+				final TicTacToeBoard board = TicTacToeBoard.fromHash(boardHashes[i]);
+				final TicTacToeMove move = table.greedyMove(board);
+				if (bestMoves[i] != (move == null ? -1 : move.hashCode()))
+					throw new RuntimeException("Expected the batch greedy move to be correct.");
+				if (move != null && bestQValues[i] != table.qValue(board, move, board.turnOf()))
+					throw new RuntimeException("Expected the batch Q-value to be correct.");
+				if (move == null && bestQValues[i] != Double.NEGATIVE_INFINITY)
+					throw new RuntimeException("Expected terminal boards to have no batch Q-value.");
+			}
+			System.out.print("P");
+		}
+		
+		// Tests that prioritized sweeping learns to complete a winning line
+		{
+			final TTTQTable table = new TTTQTable(0.5, 0.9, 0.5);
+			for (int episode = 0; episode < 2_000; episode++)
+				table.trainGamePrioritized(20, 0.01);
+			final TicTacToeBoard board = new TicTacToeBoard(
+					Player.X,    Player.X,    Player.NONE,
+					Player.O,    Player.O,    Player.NONE,
+					Player.NONE, Player.NONE, Player.NONE
+			);
+			if (!table.greedyMove(board).equals(new TicTacToeMove(2, 0)))
+				throw new RuntimeException("Expected the greedy move to win the game.");
+			System.out.print("P");
+		}
+		
+		// Tests that prioritized sweeping leaves less TD error than trainGame()
+		// over every reachable board-move pair for the same number of updates
+		{
+			final TTTQTable prioritized = new TTTQTable(0.5, 0.9, 0.5);
+			while (prioritized.updates() < 30_000)
+				prioritized.trainGamePrioritized(20, 0.01);
+			final TTTQTable uniform = new TTTQTable(0.5, 0.9, 0.5);
+			while (uniform.updates() < 30_000)
+				uniform.trainGame();
+			if (meanTDError(prioritized, 0.9) >= meanTDError(uniform, 0.9))
+				throw new RuntimeException("Expected prioritized sweeping to leave less TD error.");
+			System.out.print("P");
+		}
+
+		// Tests that trainGame() needs over three times as many updates as
+		// prioritized sweeping to bring the mean TD error down to the same level
+		{
+			final TTTQTable prioritized = new TTTQTable(0.5, 0.9, 0.5);
+			while (meanTDError(prioritized, 0.9) > 8) {
+				final long target = prioritized.updates() + 5_000;
+				while (prioritized.updates() < target)
+					prioritized.trainGamePrioritized(20, 0.01);
+			}
+			final TTTQTable uniform = new TTTQTable(0.5, 0.9, 0.5);
+			while (uniform.updates() < 3 * prioritized.updates())
+				uniform.trainGame();
+			if (meanTDError(uniform, 0.9) <= 8)
+				throw new RuntimeException("Expected trainGame() to converge over three times slower.");
+			System.out.print("P");
+		}
+
+		// Tests that the sweep queue keeps its order as it grows
+		{
+			final IndexedMaxHeap heap = new IndexedMaxHeap();
+			for (int key = 0; key < 1_000; key++)
+				heap.offer(key * 7919, (key * 31) % 1_000);
+			for (int expected = 999; expected >= 0; expected--) {
+				final int key = heap.poll();
+				if ((key / 7919 * 31) % 1_000 != expected)
+					throw new RuntimeException("Expected the keys to be removed by priority.");
+			}
+			if (!heap.isEmpty())
+				throw new RuntimeException("Expected the heap to be empty.");
+			System.out.print("P");
+		}
+		
+		// Tests that the sweep queue removes keys by highest priority
+		{
+			final IndexedMaxHeap heap = new IndexedMaxHeap();
+			heap.offer(3, 1.0);
+			heap.offer(7, 5.0);
+			heap.offer(1, 2.0);
+			heap.offer(3, 9.0);
+			heap.offer(7, 4.0);
+			if (heap.poll() != 3 || heap.poll() != 7 || heap.poll() != 1 || !heap.isEmpty())
+				throw new RuntimeException("Expected the keys to be removed by priority.");
+			System.out.print("P");
+		}
+		
+		// Tests that a full Q-value map evicts the key that was not visited
+		{
+			final QValueMap map = new QValueMap(4);
+			for (int key = 0; key < 4; key++)
+				map.put(key, key);
+			for (int key = 0; key < 3; key++)
+				map.getOrDefault(key, 0.0);
+			map.put(4, 4.0);
+			if (map.getOrDefault(3, -1.0) != -1.0 || map.getOrDefault(4, -1.0) != 4.0)
+				throw new RuntimeException("Expected the unvisited key to be evicted.");
+			if (map.size() != 4 || map.evictions() != 1 || map.hits() != 4 || map.misses() != 1)
+				throw new RuntimeException("Expected the map metrics to be correct.");
+			System.out.print("P");
+		}
+		
+		// Tests that large Q-value maps still find & remove their keys
+		{
+			final QValueMap map = new QValueMap(100_000);
+			for (int key = 0; key < 150_000; key++)
+				map.put(key * 9, key);
+			int found = 0;
+			for (int key = 0; key < 150_000; key++) {
+				final double value = map.getOrDefault(key * 9, -1.0);
+				if (value != -1.0 && value != key)
+					throw new RuntimeException("Expected the stored value to be found.");
+				found += value == -1.0 ? 0 : 1;
+			}
+			if (map.size() != 100_000 || found != 100_000 || map.evictions() != 50_000)
+				throw new RuntimeException("Expected every key left in the map to be found.");
+			System.out.print("P");
+		}
+		
+		// Tests that a Q-value map rejects a capacity that could never hold a key
+		{
+			boolean rejected = false;
+			try {
+				new QValueMap(0);
+			} catch (IllegalArgumentException e) {
+				rejected = true;
+			}
+			if (!rejected)
+				throw new RuntimeException("Expected a capacity of 0 to be rejected.");
+			System.out.print("P");
+		}
+		
+		// Tests that a bounded Q table stays within its capacity
+		{
+			final TTTQTable table = new TTTQTable(0.5, 0.9, 0.5, 1_000);
+			table.trainGames(10_000);
+			if (table.evictions() == 0 || table.hits() == 0 || table.misses() == 0)
+				throw new RuntimeException("Expected the Q table to evict Q-values.");
+			if (table.size(Player.X) > 1_000 || table.size(Player.O) > 1_000)
+				throw new RuntimeException("Expected the Q tables to stay within their capacity.");
+			
+			// Evicted Q-values must read as 0, so at most 1,000 can be nonzero
+			int nonzero = 0;
+			for (int boardHash = 0; boardHash < 19683; boardHash++) {
+				final TicTacToeBoard board = TicTacToeBoard.fromHash(boardHash);
+				for (TicTacToeMove move : board.possibleMoves())
+					nonzero += table.qValue(board, move, Player.X) == 0.0 ? 0 : 1;
+			}
+			if (nonzero > 1_000)
+				throw new RuntimeException("Expected evicted Q-values to read as 0.");
+			System.out.print("P");
+		}
+
+		// Tests that the Vector API kernel agrees with the scalar kernel for every
+		// board, both before training, when every move ties, and after training
+		{
+			if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+				throw new RuntimeException("Expected the tests to run with --add-modules jdk.incubator.vector.");
+			final TTTQTable table = new TTTQTable(0.5, 0.9, 0.5);
+			final int[] boardHashes = new int[19683];
+			for (int i = 0; i < boardHashes.length; i++)
+				boardHashes[i] = i;
+			for (int round = 0; round < 2; round++) {
+				final int[] scalarMoves = new int[boardHashes.length];
+				final double[] scalarQValues = new double[boardHashes.length];
+				table.greedyMoves(boardHashes, scalarMoves, scalarQValues, false);
+				final int[] vectorMoves = new int[boardHashes.length];
+				final double[] vectorQValues = new double[boardHashes.length];
+				table.greedyMoves(boardHashes, vectorMoves, vectorQValues, true);
+				if (!Arrays.equals(scalarMoves, vectorMoves))
+					throw new RuntimeException("Expected the kernels to agree on the greedy moves.");
+				if (!Arrays.equals(scalarQValues, vectorQValues))
+					throw new RuntimeException("Expected the kernels to agree on the Q-values.");
+				for (int episode = 0; episode < 10_000; episode++)
+					table.trainGame();
+			}
+			System.out.print("P");
+		}
+		
+	} catch (Exception e) {e.printStackTrace();}}
+	
+	/**
+	 * Computes the mean size of the TD error of the given Q table, over both
+	 * players and every board-move pair reachable from the starting board.
+	 */
+	private static double meanTDError(TTTQTable table, double discountRate) {
+		double totalError = 0;
+		int pairs = 0;
+		
+		// Visits every reachable non-terminal board once
+		final HashSet<TicTacToeBoard> seen = new HashSet<TicTacToeBoard>();
+		final ArrayDeque<TicTacToeBoard> boards = new ArrayDeque<TicTacToeBoard>();
+		boards.add(TicTacToeBoard.DEFAULT);
+		seen.add(TicTacToeBoard.DEFAULT);
+		while (!boards.isEmpty()) {
+			final TicTacToeBoard board = boards.poll();
+			for (TicTacToeMove move : board.possibleMoves()) {
+				final TicTacToeBoard nextBoard = move.nextBoard(board);
+				final TicTacToeMove greedyMove = table.greedyMove(nextBoard);
+				for (Player player : new Player[] {Player.X, Player.O}) {
+					double tdError = -table.qValue(board, move, player);
+					tdError += move.reward(board, player).amount;
+					tdError += discountRate * table.qValue(nextBoard, greedyMove, player);
+					totalError += Math.abs(tdError);
+					pairs++;
+				}
+				if (seen.add(nextBoard))
+					boards.add(nextBoard);
+			}
+		}
+		
+		return totalError / pairs;
+	}
 }
@@ -32,6 +32,23 @@ public class TicTacToeBoard {
 		this.board = board.clone();
 	}
 	
+	/**
+	 * Creates the board with the given hash value.
+	 * 
+	 * @param hash The hash value of the board, as computed by {@code hashCode()}.
+	 *             Must be a non-negative integer less than {@code SIZE^(SIZE^2)}.
+	 * @return The board whose hash value is the given hash value.
+	 */
+	public static TicTacToeBoard fromHash(int hash) {
+		final Player[] players = Player.values();
+		final Player[] board = new Player[SIZE*SIZE];
+		for (int i = 0; i < board.length; i++) {
+			board[i] = players[hash % SIZE];
+			hash /= SIZE;
+		}
+		return new TicTacToeBoard(board);
+	}
+	
 	/**
 	 * Has the player whose turn it currently is play at the given position.
 	 * 
@@ -56,7 +73,7 @@ public class TicTacToeBoard {
 	 *          Must be a non-negative integer less than {@code TicTacToeBoard.SIZE}.
 	 * @return The player at the given position.
 	 */
-	private Player get(int x, int y) {
+	public Player get(int x, int y) {
 		return board[x + SIZE*y];
 	}
 	
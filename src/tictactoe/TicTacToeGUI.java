@@ -18,10 +18,9 @@ public class TicTacToeGUI extends Application {
 	private static TicTacToeBoard board = TicTacToeBoard.DEFAULT;
 	
 	public static void main(String[] args) {
-		for (int episode = 1; episode <= 1_000_000; episode++) {
-			if (episode % 100_000 == 0)
-				System.out.println("Episode: " + episode);
-			GAME.trainGame();
+		for (int episode = 100_000; episode <= 1_000_000; episode += 100_000) {
+			GAME.trainGames(100_000);
+			System.out.println("Episode: " + episode);
 		}
 		launch(args);
 	}
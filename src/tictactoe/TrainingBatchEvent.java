@@ -0,0 +1,29 @@
+package tictactoe;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("tictactoe.TrainingBatch")
+@Label("Training Batch")
+@Category({"Tic Tac Toe", "Training"})
+@Description("A batch of training games played by a Q table.")
+class TrainingBatchEvent extends jdk.jfr.Event {
+	
+	/** The number of games played in the batch. */
+	@Label("Episodes")
+	int episodes;
+	
+	/** The number of entries in the X player's Q table after the batch. */
+	@Label("X Table Entries")
+	int xEntries;
+	
+	/** The number of entries in the O player's Q table after the batch. */
+	@Label("O Table Entries")
+	int oEntries;
+	
+	/** The number of Q-values evicted from the Q tables so far. */
+	@Label("Evictions")
+	long evictions;
+}
@@ -0,0 +1,29 @@
+package tictactoe;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("tictactoe.TrainingEpisode")
+@Label("Training Episode")
+@Category({"Tic Tac Toe", "Training"})
+@Description("A summary of one training game, committed for every "
+		+ TrainingEpisodeEvent.SAMPLE_INTERVAL + "th game.")
+class TrainingEpisodeEvent extends jdk.jfr.Event {
+	
+	/** The number of games between each committed episode event. */
+	static final int SAMPLE_INTERVAL = 100;
+	
+	/** The number of update steps taken in the game. */
+	@Label("Steps")
+	int steps;
+	
+	/** The reward given to the X player by the game's final move. */
+	@Label("Terminal Reward")
+	int terminalReward;
+	
+	/** The fraction of the game's moves that were greedy rather than random. */
+	@Label("Greedy Fraction")
+	double greedyFraction;
+}
@@ -0,0 +1,76 @@
+package tictactoe;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+class VectorGreedyMoves {
+
+	/** The widest vector shape the CPU supports for doubles. */
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	/**
+	 * Holds the greedy move kernel that uses the Vector API, which needs the JVM
+	 * to be started with {@code --add-modules jdk.incubator.vector}.
+	 */
+	private VectorGreedyMoves() {
+	}
+
+	/**
+	 * Gets the greedy move and its Q-value for each of the given boards from
+	 * the given dense tables, with one board in each lane of a vector. The moves
+	 * are checked in the order of {@code TTTQTable.MOVE_ORDER}, and a board only
+	 * takes a move with a strictly higher Q-value, so ties are broken the same
+	 * way as {@code TTTQTable.greedyMove()}.
+	 *
+	 * @param denseTables The Q-values of the player whose turn it is at each board, where
+	 *                    the Q-value of the move with hash value {@code move} at the board with
+	 *                    hash value {@code board} is at {@code denseTables[move][board]}.
+	 *                    Moves that are not possible have a Q-value of negative infinity.
+	 * @param boardHashes The hash values of the boards for which to get the greedy moves.
+	 * @param bestMoves The array in which to store the hash value of each board's greedy move,
+	 *                  or -1 if the board has no possible moves.
+	 * @param bestQValues The array in which to store the Q-value of each board's greedy move,
+	 *                    or negative infinity if the board has no possible moves.
+	 */
+	static void greedyMoves(double[][] denseTables, int[] boardHashes, int[] bestMoves, double[] bestQValues) {
+
+		// Stores the greedy moves of a vector of boards, as the JDK
+		// compiles converting them to ints lane by lane faster than
+		// converting the whole vector
+		final double[] laneBestMoves = new double[SPECIES.length()];
+
+		// Computes the greedy moves of full vectors of boards
+		int i = 0;
+		for (; i + SPECIES.length() <= boardHashes.length; i += SPECIES.length()) {
+			DoubleVector bestMove = DoubleVector.broadcast(SPECIES, -1);
+			DoubleVector bestQValue = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+			for (int move : TTTQTable.MOVE_ORDER) {
+				final DoubleVector moveQValue = DoubleVector.fromArray(SPECIES, denseTables[move], 0, boardHashes, i);
+				final VectorMask<Double> isBetter = bestQValue.compare(VectorOperators.LT, moveQValue);
+				bestMove = bestMove.blend(move, isBetter);
+				bestQValue = bestQValue.blend(moveQValue, isBetter);
+			}
+			bestQValue.intoArray(bestQValues, i);
+			bestMove.intoArray(laneBestMoves, 0);
+			for (int lane = 0; lane < laneBestMoves.length; lane++)
+				bestMoves[i + lane] = (int)laneBestMoves[lane];
+		}
+
+		// Computes the greedy moves of the remaining boards one at a time
+		for (; i < boardHashes.length; i++) {
+			int bestMove = -1;
+			double bestQValue = Double.NEGATIVE_INFINITY;
+			for (int move : TTTQTable.MOVE_ORDER) {
+				final double moveQValue = denseTables[move][boardHashes[i]];
+				if (bestQValue < moveQValue) {
+					bestMove = move;
+					bestQValue = moveQValue;
+				}
+			}
+			bestMoves[i] = bestMove;
+			bestQValues[i] = bestQValue;
+		}
+	}
+}